@@ -0,0 +1,187 @@
+package org.example;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.apache.flink.api.common.functions.OpenContext;
+import org.apache.flink.api.common.functions.RichMapFunction;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.configuration.RestOptions;
+import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.core.execution.JobClient;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.JsonNode;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.streaming.api.functions.sink.v2.DiscardingSink;
+import org.example.conf.Checkpointing;
+
+/**
+ * Runs a synthetic keyed-state job on a local cluster with the selected
+ * checkpoint profile and reports throughput and checkpoint statistics.
+ *
+ * <p>Run with {@code ./gradlew checkpointBenchmark --args="--profile production"}.
+ * Tunables: {@code --keys}, {@code --valueBytes}, {@code --records},
+ * {@code --parallelism}, {@code --managedMemory}. The defaults hold about
+ * 1 GiB of keyed state.
+ */
+public class CheckpointBenchmark {
+  static class TouchState extends RichMapFunction<Long, Long> {
+    private final int valueBytes;
+    private transient ValueState<byte[]> state;
+
+    TouchState(int valueBytes) {
+      this.valueBytes = valueBytes;
+    }
+
+    @Override
+    public void open(OpenContext openContext) throws Exception {
+      state = getRuntimeContext().getState(new ValueStateDescriptor<>("value", byte[].class));
+    }
+
+    @Override
+    public Long map(Long value) throws Exception {
+      byte[] bytes = state.value();
+      if (bytes == null) {
+        bytes = new byte[valueBytes];
+      }
+      bytes[(int) (value % valueBytes)]++;
+      state.update(bytes);
+      return value;
+    }
+  }
+
+  static String get(HttpClient http, URI uri) {
+    try {
+      HttpResponse<String> resp = http.send(
+          HttpRequest.newBuilder(uri).build(),
+          HttpResponse.BodyHandlers.ofString());
+      return resp.statusCode() / 100 == 2 ? resp.body() : null;
+    } catch (Exception e) {
+      // cluster is starting or going away
+      return null;
+    }
+  }
+
+  /**
+   * Returns a field of a REST response, failing instead of printing empty
+   * numbers when the response does not have the expected shape.
+   */
+  static JsonNode field(JsonNode node, String name) {
+    JsonNode child = node.get(name);
+    if (child == null || child.isNull()) {
+      throw new IllegalStateException(
+          String.format("REST response has no \"%s\" field: %s", name, node));
+    }
+    return child;
+  }
+
+  static boolean allTasksRunning(ObjectMapper mapper, String job) throws Exception {
+    if (job == null) {
+      return false;
+    }
+    JsonNode vertices = field(mapper.readTree(job), "vertices");
+    if (vertices.size() == 0) {
+      return false;
+    }
+    for (JsonNode vertex : vertices) {
+      JsonNode counts = field(vertex, "tasks");
+      if (counts.path("RUNNING").asInt() + counts.path("FINISHED").asInt() < field(vertex, "parallelism").asInt()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public static void main(String[] args) throws Exception {
+    ParameterTool parameters = ParameterTool.fromArgs(args);
+    long keys = parameters.getLong("keys", 4_000_000L);
+    int valueBytes = parameters.getInt("valueBytes", 256);
+    long records = parameters.getLong("records", 40_000_000L);
+    int parallelism = parameters.getInt("parallelism", 2);
+    String managedMemory = parameters.get("managedMemory", "1g");
+
+    Checkpointing checkpointing = Main.loadCheckpointing(parameters);
+    Configuration conf = Main.createConf(checkpointing);
+    // Both profiles get the same budget: JVM heap from the checkpointBenchmark
+    // task's -Xmx for heap state, plus this much native managed memory that
+    // RocksDB uses for its block cache and write buffers.
+    conf.set(TaskManagerOptions.MANAGED_MEMORY_SIZE, MemorySize.parse(managedMemory));
+    StreamExecutionEnvironment env = StreamExecutionEnvironment.createLocalEnvironmentWithWebUI(conf);
+    env.setParallelism(parallelism);
+    Main.configureCheckpointing(env, checkpointing);
+
+    env.fromSequence(0, records - 1)
+        .keyBy(value -> value % keys, Types.LONG)
+        .map(new TouchState(valueBytes))
+        .uid("touch-state")
+        .sinkTo(new DiscardingSink<Long>());
+
+    JobClient jobClient = env.executeAsync("checkpoint-benchmark");
+    HttpClient http = HttpClient.newHttpClient();
+    ObjectMapper mapper = new ObjectMapper();
+    String jobUri = String.format(
+        "http://localhost:%d/jobs/%s",
+        conf.get(RestOptions.PORT),
+        jobClient.getJobID());
+
+    // Throughput is timed from the moment every task runs, so cluster
+    // startup and deployment are not counted.
+    while (!allTasksRunning(mapper, get(http, URI.create(jobUri)))) {
+      if (jobClient.getJobStatus().get().isGloballyTerminalState()) {
+        break;
+      }
+      Thread.sleep(50);
+    }
+    long start = System.nanoTime();
+
+    // The local cluster shuts down with the job, so keep the last snapshot
+    // of the checkpoint statistics seen while it was running.
+    String checkpoints = null;
+    long lastPoll = 0;
+    while (!jobClient.getJobStatus().get().isGloballyTerminalState()) {
+      Thread.sleep(50);
+      if (System.nanoTime() - lastPoll > 1_000_000_000L) {
+        lastPoll = System.nanoTime();
+        String polled = get(http, URI.create(jobUri + "/checkpoints"));
+        if (polled != null) {
+          checkpoints = polled;
+        }
+      }
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    jobClient.getJobExecutionResult().get();
+
+    System.out.printf("profile=%s %s%n", parameters.get("profile", "default"), checkpointing);
+    System.out.printf(
+        "keys=%d valueBytes=%d records=%d parallelism=%d maxHeap=%dm managedMemory=%s%n",
+        keys, valueBytes, records, parallelism, Runtime.getRuntime().maxMemory() >> 20, managedMemory);
+    System.out.printf("elapsed=%.1fs throughput=%.0f records/s%n", seconds, records / seconds);
+    if (checkpoints == null) {
+      System.out.println("no checkpoint statistics collected");
+      return;
+    }
+    JsonNode stats = mapper.readTree(checkpoints);
+    JsonNode counts = field(stats, "counts");
+    System.out.printf(
+        "checkpoints completed=%s failed=%s%n",
+        field(counts, "completed").asText(),
+        field(counts, "failed").asText());
+    for (String metric : new String[] { "end_to_end_duration", "checkpointed_size", "state_size" }) {
+      JsonNode summary = field(field(stats, "summary"), metric);
+      System.out.printf(
+          "%s min=%s avg=%s p99=%s max=%s%n",
+          metric,
+          field(summary, "min").asText(),
+          field(summary, "avg").asText(),
+          field(summary, "p99").asText(),
+          field(summary, "max").asText());
+    }
+  }
+}
@@ -3,6 +3,7 @@
  */
 package org.example;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -15,7 +16,9 @@ import org.apache.flink.streaming.api.datastream.AsyncDataStream;
 import org.apache.flink.streaming.api.datastream.DataStream;
 import org.apache.flink.streaming.api.environment.*;
 import org.apache.flink.streaming.api.functions.sink.v2.DiscardingSink;
+import org.example.conf.Checkpointing;
 import org.example.conf.Environment;
+import org.example.conf.GestaltCache;
 import org.example.operators.MetadataEnrichment;
 import org.example.operators.ViewDuplication;
 import org.example.sinks.ViewDuplicatedMetrics;
@@ -35,7 +38,13 @@ public class Main {
     return "Hello World!";
   }
 
-  static Configuration createConf() {
+  static Checkpointing loadCheckpointing(ParameterTool parameters) throws Exception {
+    String profile = parameters.get("profile", "default");
+    return GestaltCache.getGestalt(parameters.toMap())
+        .getConfig("profiles." + profile, Checkpointing.class);
+  }
+
+  static Configuration createConf(Checkpointing checkpointing) {
     Configuration conf = new Configuration();
     conf.set(WebOptions.LOG_PATH, "logs/process.log");
     conf.set(
@@ -44,6 +53,9 @@ public class Main {
             Request.class.getName(),
             ProtobufSerializer.class.getName())));
     conf.set(RestOptions.PORT, 8083);
+    conf.set(StateBackendOptions.STATE_BACKEND, checkpointing.stateBackend);
+    conf.set(CheckpointingOptions.INCREMENTAL_CHECKPOINTS, checkpointing.incremental);
+    conf.set(StateRecoveryOptions.LOCAL_RECOVERY, checkpointing.localRecovery);
     conf.set(CheckpointingOptions.CHECKPOINT_STORAGE, "filesystem");
     conf.set(
         CheckpointingOptions.CHECKPOINTS_DIRECTORY,
@@ -53,12 +65,34 @@ public class Main {
     return conf;
   }
 
+  static void configureCheckpointing(StreamExecutionEnvironment env, Checkpointing checkpointing) {
+    env.enableCheckpointing(checkpointing.intervalMs);
+    CheckpointConfig checkpointConfig = env.getCheckpointConfig();
+    checkpointConfig.setCheckpointingConsistencyMode(checkpointing.mode);
+    checkpointConfig.setMinPauseBetweenCheckpoints(checkpointing.minPauseMs);
+    checkpointConfig.setCheckpointTimeout(checkpointing.timeoutMs);
+    if (checkpointing.unaligned) {
+      // Unaligned barriers overtake in-flight network buffers, which only
+      // exactly-once mode supports.
+      if (checkpointing.mode != CheckpointingMode.EXACTLY_ONCE) {
+        throw new IllegalArgumentException(
+            "checkpointing.unaligned requires checkpointing.mode=EXACTLY_ONCE, got " + checkpointing.mode);
+      }
+      checkpointConfig.enableUnalignedCheckpoints();
+      checkpointConfig.setAlignedCheckpointTimeout(Duration.ofMillis(checkpointing.alignedTimeoutMs));
+    }
+    checkpointConfig
+        .setExternalizedCheckpointRetention(
+            ExternalizedCheckpointRetention.RETAIN_ON_CANCELLATION);
+  }
+
   static StreamExecutionEnvironment createEnv(String[] args) throws Exception {
     ParameterTool parameters = ParameterTool.fromArgs(args);
     String environmentString = parameters.get("env", "local");
     Environment environment = Environment.fromString(environmentString);
     // GestaltCache.setEnvironment(environment);
-    Configuration conf = createConf();
+    Checkpointing checkpointing = loadCheckpointing(parameters);
+    Configuration conf = createConf(checkpointing);
     final StreamExecutionEnvironment env;
     switch (environment) {
       case LOCAL:
@@ -76,12 +110,7 @@ public class Main {
 
     env.getConfig().setGlobalJobParameters(parameters);
 
-    env.enableCheckpointing(1000);
-    env.getCheckpointConfig().setCheckpointingConsistencyMode(CheckpointingMode.AT_LEAST_ONCE);
-    env.getCheckpointConfig().setMinPauseBetweenCheckpoints(500);
-    env.getCheckpointConfig()
-        .setExternalizedCheckpointRetention(
-            ExternalizedCheckpointRetention.RETAIN_ON_CANCELLATION);
+    configureCheckpointing(env, checkpointing);
 
     return env;
   }
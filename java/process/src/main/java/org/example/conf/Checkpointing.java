@@ -0,0 +1,20 @@
+package org.example.conf;
+
+import org.apache.flink.core.execution.CheckpointingMode;
+import org.github.gestalt.config.annotations.ConfigPrefix;
+
+import lombok.ToString;
+
+@ToString
+@ConfigPrefix(prefix = "checkpointing")
+public class Checkpointing {
+  public String stateBackend;
+  public boolean incremental;
+  public boolean localRecovery;
+  public CheckpointingMode mode;
+  public long intervalMs;
+  public long minPauseMs;
+  public long timeoutMs;
+  public boolean unaligned;
+  public long alignedTimeoutMs;
+}
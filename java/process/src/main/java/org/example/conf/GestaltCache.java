@@ -8,8 +8,9 @@ import org.github.gestalt.config.builder.GestaltBuilder;
 import org.github.gestalt.config.source.ClassPathConfigSourceBuilder;
 
 public class GestaltCache {
-  static Gestalt gestalt;
-  static void create(Map<String, String> globalJobParameters) throws Exception {
+  // Subtasks of a TaskManager share this class, so open() may race on it.
+  static volatile Gestalt gestalt;
+  static Gestalt create(Map<String, String> globalJobParameters) throws Exception {
     ParameterTool parameters = ParameterTool.fromMap(globalJobParameters);
     String environmentString = parameters.get("env", "local");
     Environment environment = Environment.fromString(environmentString);
@@ -18,13 +19,21 @@ public class GestaltCache {
     if (environment.equals(Environment.DEV)) {
       builder.addSource(ClassPathConfigSourceBuilder.builder().setResource("/dev.application.properties").build());
     }
-    gestalt = builder.build();
-    gestalt.loadConfigs();
+    Gestalt created = builder.build();
+    created.loadConfigs();
+    return created;
   }
   public static Gestalt getGestalt(Map<String, String> globalJobParameters) throws Exception {
-    if (gestalt == null) {
-      create(globalJobParameters);
+    Gestalt current = gestalt;
+    if (current == null) {
+      synchronized (GestaltCache.class) {
+        current = gestalt;
+        if (current == null) {
+          current = create(globalJobParameters);
+          gestalt = current;
+        }
+      }
     }
-    return gestalt;
+    return current;
   }
 }
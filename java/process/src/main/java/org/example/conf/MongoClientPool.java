@@ -0,0 +1,151 @@
+package org.example.conf;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.codecs.pojo.PojoCodecProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * JVM-wide registry of reference-counted {@link MongoClient}s, keyed by
+ * connection string. Every operator subtask on a TaskManager that points at
+ * the same server and pool settings shares a single client and connection
+ * pool; the client is closed once the last lease is released.
+ */
+public class MongoClientPool {
+  private static final Logger LOG = LoggerFactory.getLogger(MongoClientPool.class);
+
+  static final CodecRegistry CODEC_REGISTRY = CodecRegistries.fromRegistries(
+      MongoClientSettings.getDefaultCodecRegistry(),
+      CodecRegistries.fromProviders(PojoCodecProvider.builder()
+          .automatic(true)
+          .build()));
+
+  private static class Entry {
+    final MongoClient client;
+    int refs;
+
+    Entry(MongoClient client) {
+      this.client = client;
+    }
+  }
+
+  private static final Map<String, Entry> clients = new HashMap<>();
+
+  public static class Lease implements AutoCloseable {
+    private final String key;
+    private final MongoClient client;
+    private boolean released;
+
+    Lease(String key, MongoClient client) {
+      this.key = key;
+      this.client = client;
+    }
+
+    public MongoClient getClient() {
+      return client;
+    }
+
+    @Override
+    public void close() {
+      synchronized (MongoClientPool.class) {
+        if (released) {
+          return;
+        }
+        released = true;
+        release(key);
+      }
+    }
+  }
+
+  static String connectionString(Mongo conf, MongoPool pool) {
+    StringBuilder uri = new StringBuilder(String.format(
+        "mongodb://%s:%s@%s:%d/",
+        conf.username,
+        conf.password,
+        conf.addr.host,
+        conf.addr.port));
+    if (pool != null) {
+      uri.append('?');
+      if (pool.maxSize > 0) {
+        uri.append("maxPoolSize=").append(pool.maxSize).append('&');
+      }
+      if (pool.minSize > 0) {
+        uri.append("minPoolSize=").append(pool.minSize).append('&');
+      }
+      if (pool.maxConnecting > 0) {
+        uri.append("maxConnecting=").append(pool.maxConnecting).append('&');
+      }
+      if (pool.maxIdleTimeMs > 0) {
+        uri.append("maxIdleTimeMS=").append(pool.maxIdleTimeMs).append('&');
+      }
+      uri.setLength(uri.length() - 1);
+    }
+    return uri.toString();
+  }
+
+  public static Lease acquire(Mongo conf, MongoPool pool) {
+    String key = connectionString(conf, pool);
+    Entry entry;
+    boolean created = false;
+    synchronized (MongoClientPool.class) {
+      entry = clients.get(key);
+      if (entry == null) {
+        MongoClientSettings settings = MongoClientSettings.builder()
+            .applyConnectionString(new ConnectionString(key))
+            .codecRegistry(CODEC_REGISTRY)
+            .build();
+        entry = new Entry(MongoClients.create(settings));
+        clients.put(key, entry);
+        created = true;
+      }
+      entry.refs++;
+    }
+    // The entry is published before the ping so other subtasks and lease
+    // releases never wait on it; the lease taken above keeps the client open.
+    if (created && pool != null && pool.warmUp) {
+      warmUp(entry.client, conf, pool);
+    }
+    return new Lease(key, entry.client);
+  }
+
+  static synchronized int refs(String key) {
+    Entry entry = clients.get(key);
+    return entry == null ? 0 : entry.refs;
+  }
+
+  private static void release(String key) {
+    Entry entry = clients.get(key);
+    if (entry == null) {
+      return;
+    }
+    if (--entry.refs == 0) {
+      clients.remove(key);
+      entry.client.close();
+    }
+  }
+
+  // Forces server discovery and the first connection up front, so the first
+  // asyncInvoke after a (re)start does not pay for it; minPoolSize lets the
+  // driver fill the rest of the pool in the background.
+  private static void warmUp(MongoClient client, Mongo conf, MongoPool pool) {
+    try {
+      Mono.from(client.getDatabase(conf.database).runCommand(new Document("ping", 1)))
+          .block(Duration.ofMillis(pool.warmUpTimeoutMs));
+    } catch (Exception e) {
+      LOG.warn("mongo warm-up against {}:{} failed", conf.addr.host, conf.addr.port, e);
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package org.example.conf;
+
+import org.github.gestalt.config.annotations.ConfigPrefix;
+
+import lombok.ToString;
+
+@ToString
+@ConfigPrefix(prefix = "pool")
+public class MongoPool {
+  public int maxSize;
+  public int minSize;
+  public int maxConnecting;
+  public long maxIdleTimeMs;
+  public boolean warmUp;
+  public long warmUpTimeoutMs;
+}
@@ -0,0 +1,141 @@
+package org.example.operators;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import io.prometheus.write.v2.Types.TimeSeries;
+
+/**
+ * Reusable label set of (name ref, value ref) pairs packed into an
+ * {@code int[]} and kept sorted by label name. Refs are read from and written
+ * to protobuf through the primitive accessors, so filling and emitting a set
+ * does not box or allocate once the buffer has grown to fit.
+ */
+final class LabelSet {
+  static final String METRIC_NAME = "__name__";
+
+  private int[] refs;
+  private int size;
+
+  LabelSet(int capacity) {
+    refs = new int[capacity << 1];
+  }
+
+  /** Number of label pairs the set holds without growing. */
+  int capacity() {
+    return refs.length >> 1;
+  }
+
+  /** Returns the value ref of label {@code name} in {@code ts}, or -1. */
+  static int valueRef(TimeSeries ts, SymbolTable symbols, String name) {
+    int count = ts.getLabelsRefsCount();
+    for (int i = 0; i + 1 < count; i += 2) {
+      if (name.equals(symbols.get(ts.getLabelsRefs(i)))) {
+        return ts.getLabelsRefs(i + 1);
+      }
+    }
+    return -1;
+  }
+
+  /** Replaces the contents with all labels of {@code ts}, sorted by name. */
+  void copyOf(TimeSeries ts, SymbolTable symbols) {
+    int count = ts.getLabelsRefsCount() & ~1;
+    ensureCapacity(count >> 1);
+    for (int i = 0; i < count; i++) {
+      refs[i] = ts.getLabelsRefs(i);
+    }
+    size = count >> 1;
+    sort(symbols);
+  }
+
+  /**
+   * Replaces the contents with the metric name and the labels of {@code ts}
+   * listed in {@code names}, sorted by name.
+   */
+  void project(TimeSeries ts, SymbolTable symbols, Set<String> names) {
+    int count = ts.getLabelsRefsCount() & ~1;
+    ensureCapacity(count >> 1);
+    size = 0;
+    for (int i = 0; i < count; i += 2) {
+      int nameRef = ts.getLabelsRefs(i);
+      String name = symbols.get(nameRef);
+      if (METRIC_NAME.equals(name) || names.contains(name)) {
+        refs[size << 1] = nameRef;
+        refs[(size << 1) + 1] = ts.getLabelsRefs(i + 1);
+        size++;
+      }
+    }
+    sort(symbols);
+  }
+
+  /**
+   * Merges one label into its sorted position. When the name is already
+   * present its value is overwritten only if {@code replace} is set.
+   */
+  void put(SymbolTable symbols, int nameRef, int valueRef, boolean replace) {
+    int lo = 0;
+    int hi = size - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int cmp = symbols.compare(refs[mid << 1], nameRef);
+      if (cmp < 0) {
+        lo = mid + 1;
+      } else if (cmp > 0) {
+        hi = mid - 1;
+      } else {
+        if (replace) {
+          refs[(mid << 1) + 1] = valueRef;
+        }
+        return;
+      }
+    }
+    ensureCapacity(size + 1);
+    System.arraycopy(refs, lo << 1, refs, (lo + 1) << 1, (size - lo) << 1);
+    refs[lo << 1] = nameRef;
+    refs[(lo << 1) + 1] = valueRef;
+    size++;
+  }
+
+  void writeTo(TimeSeries.Builder builder) {
+    builder.clearLabelsRefs();
+    for (int i = 0; i < size << 1; i++) {
+      builder.addLabelsRefs(refs[i]);
+    }
+  }
+
+  // Remote-write senders already sort labels by name, so this is normally a
+  // single pass; insertion sort keeps the rare unsorted case allocation free.
+  // The sort is stable, so collapsing repeated names afterwards keeps the
+  // last value, as putting them into a map would.
+  private void sort(SymbolTable symbols) {
+    for (int i = 1; i < size; i++) {
+      int nameRef = refs[i << 1];
+      int valueRef = refs[(i << 1) + 1];
+      int j = i - 1;
+      while (j >= 0 && symbols.compare(refs[j << 1], nameRef) > 0) {
+        refs[(j + 1) << 1] = refs[j << 1];
+        refs[((j + 1) << 1) + 1] = refs[(j << 1) + 1];
+        j--;
+      }
+      refs[(j + 1) << 1] = nameRef;
+      refs[((j + 1) << 1) + 1] = valueRef;
+    }
+    int kept = 0;
+    for (int i = 0; i < size; i++) {
+      if (kept > 0 && symbols.compare(refs[(kept - 1) << 1], refs[i << 1]) == 0) {
+        refs[((kept - 1) << 1) + 1] = refs[(i << 1) + 1];
+        continue;
+      }
+      refs[kept << 1] = refs[i << 1];
+      refs[(kept << 1) + 1] = refs[(i << 1) + 1];
+      kept++;
+    }
+    size = kept;
+  }
+
+  private void ensureCapacity(int pairs) {
+    if (refs.length < pairs << 1) {
+      refs = Arrays.copyOf(refs, Math.max(pairs << 1, refs.length << 1));
+    }
+  }
+}
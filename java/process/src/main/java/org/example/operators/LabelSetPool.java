@@ -0,0 +1,42 @@
+package org.example.operators;
+
+import java.util.ArrayDeque;
+
+/**
+ * Per-subtask pool of {@link LabelSet} scratch buffers. Async results arrive
+ * on driver threads, several at a time, so each callback borrows a set for
+ * the duration of one request. Sets that an outlier series grew past
+ * {@code maxRetainedCapacity} are dropped instead of being kept alive.
+ */
+final class LabelSetPool {
+  static final int INITIAL_CAPACITY = 16;
+  static final int MAX_RETAINED_CAPACITY = 256;
+  static final int MAX_POOLED = 8;
+
+  private final int initialCapacity;
+  private final int maxRetainedCapacity;
+  private final int maxPooled;
+  private final ArrayDeque<LabelSet> pooled;
+
+  LabelSetPool() {
+    this(INITIAL_CAPACITY, MAX_RETAINED_CAPACITY, MAX_POOLED);
+  }
+
+  LabelSetPool(int initialCapacity, int maxRetainedCapacity, int maxPooled) {
+    this.initialCapacity = initialCapacity;
+    this.maxRetainedCapacity = maxRetainedCapacity;
+    this.maxPooled = maxPooled;
+    pooled = new ArrayDeque<>(maxPooled);
+  }
+
+  synchronized LabelSet acquire() {
+    LabelSet labels = pooled.pollFirst();
+    return labels != null ? labels : new LabelSet(initialCapacity);
+  }
+
+  synchronized void release(LabelSet labels) {
+    if (labels.capacity() <= maxRetainedCapacity && pooled.size() < maxPooled) {
+      pooled.addFirst(labels);
+    }
+  }
+}
@@ -2,26 +2,20 @@ package org.example.operators;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.streaming.api.functions.async.ResultFuture;
 import org.apache.flink.streaming.api.functions.async.RichAsyncFunction;
-import org.bson.codecs.configuration.CodecRegistries;
-import org.bson.codecs.configuration.CodecRegistry;
-import org.bson.codecs.pojo.PojoCodecProvider;
 import org.example.conf.GestaltCache;
 import org.example.conf.Mongo;
+import org.example.conf.MongoClientPool;
+import org.example.conf.MongoPool;
+import org.github.gestalt.config.Gestalt;
 import org.github.gestalt.config.annotations.ConfigPrefix;
-import com.mongodb.ConnectionString;
-import com.mongodb.MongoClientSettings;
 import com.mongodb.client.model.Filters;
-import com.mongodb.reactivestreams.client.MongoClient;
-import com.mongodb.reactivestreams.client.MongoClients;
 import com.mongodb.reactivestreams.client.MongoCollection;
 import com.mongodb.reactivestreams.client.MongoDatabase;
 
@@ -51,34 +45,23 @@ public class MetadataEnrichment extends RichAsyncFunction<Request, Request> {
     String tier;
   }
 
-  private transient MongoClient client;
+  private transient MongoClientPool.Lease lease;
+  private transient LabelSetPool labelSets;
   private transient MongoDatabase database;
   private transient MongoCollection<Metadata> collection;
 
   @Override
   public void open(Configuration parameters) throws Exception {
     super.open(parameters);
-    Conf conf = GestaltCache.getGestalt(getRuntimeContext().getGlobalJobParameters()).getConfig("operators", Conf.class);
-
-    String uri = String.format(
-        "mongodb://%s:%s@%s:%d",
-        conf.mongo.username,
-        conf.mongo.password,
-        conf.mongo.addr.host,
-        conf.mongo.addr.port);
+    labelSets = new LabelSetPool();
+    Gestalt gestalt = GestaltCache.getGestalt(getRuntimeContext().getGlobalJobParameters());
+    Conf conf = gestalt.getConfig("operators", Conf.class);
+    // Pool settings are shared so that every operator maps to the same client.
+    MongoPool pool = gestalt.getConfig("mongo", MongoPool.class);
 
     try {
-      CodecRegistry pojoCodecRegistry = CodecRegistries.fromRegistries(
-          MongoClientSettings.getDefaultCodecRegistry(),
-          CodecRegistries.fromProviders(PojoCodecProvider.builder()
-              .automatic(true)
-              .build()));
-      MongoClientSettings settings = MongoClientSettings.builder()
-          .applyConnectionString(new ConnectionString(uri))
-          .codecRegistry(pojoCodecRegistry)
-          .build();
-      client = MongoClients.create(settings);
-      database = client.getDatabase(conf.mongo.database);
+      lease = MongoClientPool.acquire(conf.mongo, pool);
+      database = lease.getClient().getDatabase(conf.mongo.database);
       collection = database.getCollection(conf.collection, Metadata.class);
     } catch (Exception e) {
       e.printStackTrace();
@@ -89,7 +72,9 @@ public class MetadataEnrichment extends RichAsyncFunction<Request, Request> {
   @Override
   public void close() throws Exception {
     super.close();
-    client.close();
+    if (lease != null) {
+      lease.close();
+    }
   }
 
   @Override
@@ -98,49 +83,35 @@ public class MetadataEnrichment extends RichAsyncFunction<Request, Request> {
     // resultFuture.complete(Collections.emptyList());
   }
 
-  static List<Integer> enrichLabels(
+  static void enrichLabels(
+      LabelSet labels,
       TimeSeries ts,
-      List<String> symbols,
+      SymbolTable symbols,
       Metadata metadata) {
-    Map<String, String> labels = new HashMap<>();
-
-    List<Integer> refs = ts.getLabelsRefsList();
-    for (int i = 0; i < refs.size(); i += 2) {
-      labels.put(symbols.get(refs.get(i)), symbols.get(refs.get(i + 1)));
-    }
-
-    labels.put("service", metadata.service);
-    labels.put("team", metadata.team);
-    labels.put("tier", metadata.tier);
-
-    List<String> names = new ArrayList<>(labels.keySet());
-    Collections.sort(names);
-
-    List<Integer> newRefs = new ArrayList<>(names.size() << 1);
-
-    for (String name : names) {
-      int nRef = Utils.getOrAddSymbol(symbols, name);
-      int vRef = Utils.getOrAddSymbol(symbols, labels.get(name));
+    labels.copyOf(ts, symbols);
+    putLabel(labels, symbols, "service", metadata.service);
+    putLabel(labels, symbols, "team", metadata.team);
+    putLabel(labels, symbols, "tier", metadata.tier);
+  }
 
-      newRefs.add(nRef);
-      newRefs.add(vRef);
+  private static void putLabel(LabelSet labels, SymbolTable symbols, String name, String value) {
+    if (value == null) {
+      return;
     }
-
-    return newRefs;
+    labels.put(symbols, symbols.getOrAdd(name), symbols.getOrAdd(value), true);
   }
 
   @Override
   public void asyncInvoke(Request input, ResultFuture<Request> resultFuture) throws Exception {
-    List<String> symbols = new ArrayList<>(input.getSymbolsList());
+    SymbolTable symbols = new SymbolTable(input.getSymbolsList());
     List<TimeSeries> series = input.getTimeseriesList();
 
     Set<String> pods = new HashSet<>();
     for (TimeSeries ts : series) {
-      Utils.getLabelValueByLabelName(
-          symbols,
-          ts.getLabelsRefsList(),
-          "pod")
-          .ifPresent(podName -> pods.add(podName));
+      int podRef = LabelSet.valueRef(ts, symbols, "pod");
+      if (podRef >= 0) {
+        pods.add(symbols.get(podRef));
+      }
     }
     if (pods.isEmpty()) {
       resultFuture.complete(Collections.singleton(input));
@@ -151,32 +122,28 @@ public class MetadataEnrichment extends RichAsyncFunction<Request, Request> {
         .subscribe(
             metadataByPodName -> {
               List<TimeSeries> enriched = new ArrayList<>(series.size());
-              for (TimeSeries ts : series) {
-                Utils.getLabelValueByLabelName(
-                    symbols,
-                    ts.getLabelsRefsList(), "pod")
-                    .ifPresentOrElse(podName -> {
-                      Metadata metadata = metadataByPodName.get(podName);
-                      if (metadata == null) {
-                        enriched.add(ts);
-                        return;
-                      }
-                      List<Integer> newRefs = enrichLabels(ts, symbols, metadata);
-                      enriched.add(
-                          ts.toBuilder()
-                              .clearLabelsRefs()
-                              .addAllLabelsRefs(newRefs)
-                              .build());
-
-                    }, () -> {
-                      enriched.add(ts);
-                    });
+              LabelSet labels = labelSets.acquire();
+              try {
+                for (TimeSeries ts : series) {
+                  int podRef = LabelSet.valueRef(ts, symbols, "pod");
+                  Metadata metadata = podRef < 0 ? null : metadataByPodName.get(symbols.get(podRef));
+                  if (metadata == null) {
+                    enriched.add(ts);
+                    continue;
+                  }
+                  enrichLabels(labels, ts, symbols, metadata);
+                  TimeSeries.Builder builder = ts.toBuilder();
+                  labels.writeTo(builder);
+                  enriched.add(builder.build());
+                }
+              } finally {
+                labelSets.release(labels);
               }
               resultFuture.complete(
                   Collections.singleton(
                       input.toBuilder()
                           .clearSymbols()
-                          .addAllSymbols(symbols)
+                          .addAllSymbols(symbols.asList())
                           .clearTimeseries()
                           .addAllTimeseries(enriched)
                           .build()));
@@ -0,0 +1,56 @@
+package org.example.operators;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Symbols of a single remote-write {@code Request}. Reads go straight to the
+ * request's own list; the copy and the reverse index used for interning are
+ * only built on the first {@link #getOrAdd}, which most requests never reach.
+ */
+final class SymbolTable {
+  private List<String> symbols;
+  private Map<String, Integer> refs;
+
+  SymbolTable(List<String> initial) {
+    symbols = initial;
+  }
+
+  String get(int ref) {
+    return symbols.get(ref);
+  }
+
+  int getOrAdd(String symbol) {
+    if (refs == null) {
+      index();
+    }
+    Integer ref = refs.get(symbol);
+    if (ref != null) {
+      return ref;
+    }
+    int added = symbols.size();
+    symbols.add(symbol);
+    refs.put(symbol, added);
+    return added;
+  }
+
+  int compare(int ref, int otherRef) {
+    return ref == otherRef ? 0 : symbols.get(ref).compareTo(symbols.get(otherRef));
+  }
+
+  List<String> asList() {
+    return symbols;
+  }
+
+  private void index() {
+    List<String> copy = new ArrayList<>(symbols.size() + 16);
+    refs = new HashMap<>((symbols.size() + 16) * 4 / 3 + 1);
+    for (String symbol : symbols) {
+      refs.putIfAbsent(symbol, copy.size());
+      copy.add(symbol);
+    }
+    symbols = copy;
+  }
+}
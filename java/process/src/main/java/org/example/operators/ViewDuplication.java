@@ -3,25 +3,18 @@ package org.example.operators;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
-import java.util.TreeMap;
 
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.streaming.api.functions.async.ResultFuture;
 import org.apache.flink.streaming.api.functions.async.RichAsyncFunction;
-import org.bson.codecs.configuration.CodecRegistries;
-import org.bson.codecs.configuration.CodecRegistry;
-import org.bson.codecs.pojo.PojoCodecProvider;
 import org.example.conf.GestaltCache;
 import org.example.conf.Mongo;
+import org.example.conf.MongoClientPool;
+import org.example.conf.MongoPool;
+import org.github.gestalt.config.Gestalt;
 import org.github.gestalt.config.annotations.ConfigPrefix;
 
-import com.mongodb.ConnectionString;
-import com.mongodb.MongoClientSettings;
-import com.mongodb.reactivestreams.client.MongoClient;
-import com.mongodb.reactivestreams.client.MongoClients;
 import com.mongodb.reactivestreams.client.MongoCollection;
 import com.mongodb.reactivestreams.client.MongoDatabase;
 
@@ -49,34 +42,23 @@ public class ViewDuplication extends RichAsyncFunction<Request, Request> {
     Set<String> labels;
   }
 
-  private transient MongoClient client;
+  private transient MongoClientPool.Lease lease;
+  private transient LabelSetPool labelSets;
   private transient MongoDatabase database;
   private transient MongoCollection<Duplication> collection;
 
   @Override
   public void open(Configuration parameters) throws Exception {
     super.open(parameters);
-    Conf conf = GestaltCache.getGestalt(getRuntimeContext().getGlobalJobParameters()).getConfig("operators", Conf.class);
-
-    String uri = String.format(
-        "mongodb://%s:%s@%s:%d",
-        conf.mongo.username,
-        conf.mongo.password,
-        conf.mongo.addr.host,
-        conf.mongo.addr.port);
+    labelSets = new LabelSetPool();
+    Gestalt gestalt = GestaltCache.getGestalt(getRuntimeContext().getGlobalJobParameters());
+    Conf conf = gestalt.getConfig("operators", Conf.class);
+    // Pool settings are shared so that every operator maps to the same client.
+    MongoPool pool = gestalt.getConfig("mongo", MongoPool.class);
 
     try {
-      CodecRegistry pojoCodecRegistry = CodecRegistries.fromRegistries(
-          MongoClientSettings.getDefaultCodecRegistry(),
-          CodecRegistries.fromProviders(PojoCodecProvider.builder()
-              .automatic(true)
-              .build()));
-      MongoClientSettings settings = MongoClientSettings.builder()
-          .applyConnectionString(new ConnectionString(uri))
-          .codecRegistry(pojoCodecRegistry)
-          .build();
-      client = MongoClients.create(settings);
-      database = client.getDatabase(conf.mongo.database);
+      lease = MongoClientPool.acquire(conf.mongo, pool);
+      database = lease.getClient().getDatabase(conf.mongo.database);
       collection = database.getCollection(conf.collection, Duplication.class);
     } catch (Exception e) {
       e.printStackTrace();
@@ -87,7 +69,9 @@ public class ViewDuplication extends RichAsyncFunction<Request, Request> {
   @Override
   public void close() throws Exception {
     super.close();
-    client.close();
+    if (lease != null) {
+      lease.close();
+    }
   }
 
   @Override
@@ -95,53 +79,50 @@ public class ViewDuplication extends RichAsyncFunction<Request, Request> {
     super.timeout(input, resultFuture);
   }
 
+  static void duplicateLabels(
+      LabelSet labels,
+      TimeSeries ts,
+      SymbolTable symbols,
+      Duplication dup) {
+    labels.project(ts, symbols, dup.labels);
+    if (dup.view != null) {
+      labels.put(symbols, symbols.getOrAdd("view"), symbols.getOrAdd(dup.view), false);
+    }
+  }
+
   @Override
   public void asyncInvoke(Request input, ResultFuture<Request> resultFuture) throws Exception {
     Flux.from(collection.find())
         .collectList()
         .subscribe(
             dups -> {
-              List<String> symbols = new ArrayList<>(input.getSymbolsList());
+              SymbolTable symbols = new SymbolTable(input.getSymbolsList());
               List<TimeSeries> series = input.getTimeseriesList();
               List<TimeSeries> duplicated = new ArrayList<>(series.size() * dups.size());
-              for (TimeSeries ts : series) {
-                Optional<String> name = Utils.getLabelValueByLabelName(symbols, ts.getLabelsRefsList(), "__name__");
-                if (name.isPresent() && !name.get().equals("order_create_failed_total")) {
-                  duplicated.add(ts);
-                  continue;
-                }
-
-                for (Duplication dup : dups) {
-                  Map<String, String> newLabels = new TreeMap<>();
-                  newLabels.put("view", dup.view);
-                  List<Integer> refs = ts.getLabelsRefsList();
-                  for (int i = 0; i < refs.size(); i += 2) {
-                    String labelName = symbols.get(refs.get(i));
-                    if ("__name__".equals(labelName) || dup.labels.contains(labelName)) {
-                      newLabels.put(labelName, symbols.get(refs.get(i + 1)));
-                    }
+              LabelSet labels = labelSets.acquire();
+              try {
+                for (TimeSeries ts : series) {
+                  int nameRef = LabelSet.valueRef(ts, symbols, LabelSet.METRIC_NAME);
+                  if (nameRef >= 0 && !symbols.get(nameRef).equals("order_create_failed_total")) {
+                    duplicated.add(ts);
+                    continue;
                   }
 
-                  List<Integer> newRefs = new ArrayList<>(newLabels.size() << 1);
-                  for (Map.Entry<String, String> e : newLabels.entrySet()) {
-                    int n = Utils.getOrAddSymbol(symbols, e.getKey());
-                    int v = Utils.getOrAddSymbol(symbols, e.getValue());
-                    newRefs.add(n);
-                    newRefs.add(v);
+                  for (Duplication dup : dups) {
+                    duplicateLabels(labels, ts, symbols, dup);
+                    TimeSeries.Builder builder = ts.toBuilder();
+                    labels.writeTo(builder);
+                    duplicated.add(builder.build());
                   }
-
-                  duplicated.add(
-                      ts.toBuilder()
-                          .clearLabelsRefs()
-                          .addAllLabelsRefs(newRefs)
-                          .build());
                 }
+              } finally {
+                labelSets.release(labels);
               }
               resultFuture.complete(
                   Collections.singleton(
                       input.toBuilder()
                           .clearSymbols()
-                          .addAllSymbols(symbols)
+                          .addAllSymbols(symbols.asList())
                           .clearTimeseries()
                           .addAllTimeseries(duplicated)
                           .build()));
@@ -0,0 +1,87 @@
+package org.example.sources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable scratch array that a source subtask reuses to decompress every
+ * record it reads, so steady-state decoding does not allocate output arrays.
+ * Decoded sizes are capped at {@code maxCapacity}. Once grown, the array is
+ * kept until {@value #SHRINK_AFTER_RECORDS} records in a row have used less
+ * than a quarter of it, then dropped back to {@code initialCapacity}.
+ */
+public final class DecodeBuffer {
+  static final int SHRINK_AFTER_RECORDS = 1024;
+
+  private final int initialCapacity;
+  private final int maxCapacity;
+  private byte[] array;
+  private int used;
+  private int smallRecords;
+
+  public DecodeBuffer(int initialCapacity, int maxCapacity) {
+    this.initialCapacity = Math.min(initialCapacity, maxCapacity);
+    this.maxCapacity = maxCapacity;
+    array = new byte[this.initialCapacity];
+  }
+
+  /** Fails when a decoded record of {@code size} bytes would exceed the cap. */
+  public void checkLimit(long size) throws IOException {
+    if (size > maxCapacity) {
+      throw new IOException(String.format(
+          "decoded record of at least %d bytes exceeds the %d byte limit", size, maxCapacity));
+    }
+  }
+
+  /** Returns the backing array, grown to hold at least {@code capacity} bytes. */
+  public byte[] ensure(int capacity) throws IOException {
+    checkLimit(capacity);
+    if (array.length < capacity) {
+      array = new byte[(int) Math.min(Math.max(capacity, (long) array.length << 1), maxCapacity)];
+    }
+    used = capacity;
+    return array;
+  }
+
+  /** Drains and closes {@code in}, returning a view over the bytes read. */
+  public ByteBuffer readFully(InputStream in) throws IOException {
+    try (in) {
+      int length = 0;
+      while (true) {
+        if (length == array.length) {
+          // Only grow when the stream really has more, so a record that
+          // exactly fills the array keeps reusing it.
+          int next = in.read();
+          if (next < 0) {
+            break;
+          }
+          checkLimit((long) length + 1);
+          array = Arrays.copyOf(array, (int) Math.min(Math.max((long) array.length << 1, 1), maxCapacity));
+          array[length++] = (byte) next;
+        }
+        int read = in.read(array, length, array.length - length);
+        if (read < 0) {
+          break;
+        }
+        length += read;
+      }
+      used = length;
+      return ByteBuffer.wrap(array, 0, length);
+    }
+  }
+
+  /** Marks the end of a record; views returned before this call become invalid. */
+  public void release() {
+    if (array.length > initialCapacity && used < array.length >> 2) {
+      if (++smallRecords >= SHRINK_AFTER_RECORDS) {
+        array = new byte[initialCapacity];
+        smallRecords = 0;
+      }
+    } else {
+      smallRecords = 0;
+    }
+    used = 0;
+  }
+}
@@ -1,20 +1,15 @@
 package org.example.sources;
 
-import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.connector.kafka.source.KafkaSource;
 import org.apache.flink.connector.kafka.source.enumerator.initializer.OffsetsInitializer;
-import org.apache.flink.connector.kafka.source.reader.deserializer.KafkaRecordDeserializationSchema;
-import org.apache.flink.util.Collector;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
 import org.example.conf.GestaltCache;
 import org.github.gestalt.config.Gestalt;
 import org.github.gestalt.config.annotations.ConfigPrefix;
-import org.xerial.snappy.Snappy;
 
 import io.prometheus.write.v2.Types.Request;
 import lombok.ToString;
@@ -24,6 +19,9 @@ public class RawMetrics {
   @ConfigPrefix(prefix = "rawMetrics")
   public static class Conf {
     public org.example.conf.KafkaSource kafkaSource;
+    public String defaultCodec;
+    public int initialDecodedBytes;
+    public int maxDecodedBytes;
   }
 
   public static KafkaSource<Request> createSource(Map<String, String> globalJobParameters) throws Exception {
@@ -40,23 +38,11 @@ public class RawMetrics {
         .setStartingOffsets(OffsetsInitializer.committedOffsets(OffsetResetStrategy.EARLIEST))
         .setProperty("partition.discovery.interval.ms", "10000")
         .setProperty("commit.offsets.on.checkpoint", "true")
-        .setDeserializer(new KafkaRecordDeserializationSchema<Request>() {
-          @Override
-          public void deserialize(ConsumerRecord<byte[], byte[]> record, Collector<Request> out) throws IOException {
-            try {
-              byte[] uncompressed = Snappy.uncompress(record.value());
-              out.collect(Request.parseFrom(uncompressed));
-            } catch (Exception e) {
-              e.printStackTrace();
-              throw e;
-            }
-          }
-
-          @Override
-          public TypeInformation<Request> getProducedType() {
-            return TypeInformation.of(Request.class);
-          }
-        })
+        .setDeserializer(new RequestDeserializer(
+            List.of(RecordCodecs.values()),
+            RecordCodecs.fromString(conf.defaultCodec),
+            conf.initialDecodedBytes,
+            conf.maxDecodedBytes))
         .build();
     return kafkaSource;
   }
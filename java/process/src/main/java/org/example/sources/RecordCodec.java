@@ -0,0 +1,23 @@
+package org.example.sources;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes the value of a raw metrics Kafka record into serialized protobuf
+ * bytes. Built-in codecs live in {@link RecordCodecs}.
+ */
+public interface RecordCodec extends Serializable {
+  /** Name matched case-insensitively against the {@code Content-Encoding} record header. */
+  String codecName();
+
+  /** Whether {@code value} starts with this codec's magic bytes; codecs without one return false. */
+  boolean matches(byte[] value);
+
+  /**
+   * Decodes {@code value}, writing into {@code buffer} when the codec needs
+   * room. The returned buffer is only valid until the next call.
+   */
+  ByteBuffer decode(byte[] value, DecodeBuffer buffer) throws IOException;
+}
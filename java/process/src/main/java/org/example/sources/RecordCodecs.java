@@ -0,0 +1,108 @@
+package org.example.sources;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xerial.snappy.Snappy;
+import org.xerial.snappy.SnappyFramedInputStream;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStream;
+
+import net.jpountz.lz4.LZ4FrameInputStream;
+
+public enum RecordCodecs implements RecordCodec {
+  /** Raw snappy block, as used by the remote-write HTTP protocol. Has no magic bytes. */
+  SNAPPY("snappy") {
+    @Override
+    public ByteBuffer decode(byte[] value, DecodeBuffer buffer) throws IOException {
+      byte[] dst = buffer.ensure(Snappy.uncompressedLength(value));
+      int length = Snappy.uncompress(value, 0, value.length, dst, 0);
+      return ByteBuffer.wrap(dst, 0, length);
+    }
+  },
+  /** Snappy framing format, starting with the stream identifier chunk. */
+  SNAPPY_FRAMED("snappy-framed", 0xff, 0x06, 0x00, 0x00, 's', 'N', 'a', 'P', 'p', 'Y') {
+    @Override
+    public ByteBuffer decode(byte[] value, DecodeBuffer buffer) throws IOException {
+      return buffer.readFully(new SnappyFramedInputStream(new ByteArrayInputStream(value)));
+    }
+  },
+  ZSTD("zstd", 0x28, 0xb5, 0x2f, 0xfd) {
+    @Override
+    public ByteBuffer decode(byte[] value, DecodeBuffer buffer) throws IOException {
+      // One-shot decompression when the frame records its content size,
+      // streaming otherwise (or for multi-frame values that do not fit).
+      long size = Zstd.getFrameContentSize(value);
+      if (size > 0 && size <= Integer.MAX_VALUE - 8) {
+        byte[] dst = buffer.ensure((int) size);
+        long length = Zstd.decompressByteArray(dst, 0, (int) size, value, 0, value.length);
+        if (!Zstd.isError(length)) {
+          return ByteBuffer.wrap(dst, 0, (int) length);
+        }
+      }
+      return buffer.readFully(new ZstdInputStream(new ByteArrayInputStream(value)));
+    }
+  },
+  /** LZ4 frame format. */
+  LZ4("lz4", 0x04, 0x22, 0x4d, 0x18) {
+    @Override
+    public ByteBuffer decode(byte[] value, DecodeBuffer buffer) throws IOException {
+      return buffer.readFully(new LZ4FrameInputStream(new ByteArrayInputStream(value)));
+    }
+  },
+  /** Uncompressed protobuf. Has no magic bytes. */
+  IDENTITY("identity") {
+    @Override
+    public ByteBuffer decode(byte[] value, DecodeBuffer buffer) throws IOException {
+      buffer.checkLimit(value.length);
+      return ByteBuffer.wrap(value);
+    }
+  };
+
+  private final String codecName;
+  private final byte[] magic;
+
+  RecordCodecs(String codecName, int... magic) {
+    this.codecName = codecName;
+    this.magic = new byte[magic.length];
+    for (int i = 0; i < magic.length; i++) {
+      this.magic[i] = (byte) magic[i];
+    }
+  }
+
+  @Override
+  public String codecName() {
+    return codecName;
+  }
+
+  @Override
+  public boolean matches(byte[] value) {
+    if (magic.length == 0 || value.length < magic.length) {
+      return false;
+    }
+    for (int i = 0; i < magic.length; i++) {
+      if (value[i] != magic[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public static RecordCodecs fromString(String text) {
+    for (RecordCodecs codec : RecordCodecs.values()) {
+      if (codec.codecName.equalsIgnoreCase(text)) {
+        return codec;
+      }
+    }
+    List<String> names = new ArrayList<>();
+    for (RecordCodecs codec : RecordCodecs.values()) {
+      names.add(codec.codecName);
+    }
+    throw new IllegalArgumentException(
+        String.format("unknown record codec %s, expected one of %s", text, names));
+  }
+}
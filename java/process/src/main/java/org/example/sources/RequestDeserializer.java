@@ -0,0 +1,137 @@
+package org.example.sources;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.connector.kafka.source.reader.deserializer.KafkaRecordDeserializationSchema;
+import org.apache.flink.util.Collector;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+
+import com.google.protobuf.CodedInputStream;
+
+import io.prometheus.write.v2.Types.Request;
+
+/**
+ * Turns raw metrics Kafka records into remote-write {@link Request}s.
+ *
+ * <p>The codec is taken from the {@code Content-Encoding} header when present,
+ * otherwise from the value's magic bytes, otherwise {@code fallback} is used.
+ * A {@code Content-Type} of {@value #DELIMITED_MEDIA_TYPE} (with an optional
+ * {@code proto} parameter naming {@value #REQUEST_PROTO}) marks a value holding
+ * several varint length-prefixed Requests instead of a single one.
+ */
+public class RequestDeserializer implements KafkaRecordDeserializationSchema<Request> {
+  static final String CONTENT_ENCODING = "Content-Encoding";
+  static final String CONTENT_TYPE = "Content-Type";
+  static final String DELIMITED_MEDIA_TYPE = "application/x-protobuf-delimited";
+  static final String REQUEST_PROTO = "io.prometheus.write.v2.Request";
+
+  private final List<? extends RecordCodec> codecs;
+  private final RecordCodec fallback;
+  private final int initialDecodedBytes;
+  private final int maxDecodedBytes;
+  private transient DecodeBuffer buffer;
+
+  public RequestDeserializer(
+      List<? extends RecordCodec> codecs,
+      RecordCodec fallback,
+      int initialDecodedBytes,
+      int maxDecodedBytes) {
+    this.codecs = codecs;
+    this.fallback = fallback;
+    this.initialDecodedBytes = initialDecodedBytes;
+    this.maxDecodedBytes = maxDecodedBytes;
+  }
+
+  @Override
+  public void open(DeserializationSchema.InitializationContext context) throws Exception {
+    buffer = new DecodeBuffer(initialDecodedBytes, maxDecodedBytes);
+  }
+
+  @Override
+  public void deserialize(ConsumerRecord<byte[], byte[]> record, Collector<Request> out) throws IOException {
+    byte[] value = record.value();
+    if (value == null) {
+      return;
+    }
+    try {
+      ByteBuffer decoded = detect(record).decode(value, buffer);
+      if (isDelimited(header(record, CONTENT_TYPE))) {
+        CodedInputStream in = CodedInputStream.newInstance(decoded);
+        while (!in.isAtEnd()) {
+          int limit = in.pushLimit(in.readRawVarint32());
+          out.collect(Request.parseFrom(in));
+          in.popLimit(limit);
+        }
+      } else {
+        out.collect(Request.parseFrom(decoded));
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      throw e;
+    } finally {
+      buffer.release();
+    }
+  }
+
+  static boolean isDelimited(String contentType) throws IOException {
+    if (contentType == null) {
+      return false;
+    }
+    String[] parts = contentType.split(";");
+    if (!DELIMITED_MEDIA_TYPE.equalsIgnoreCase(parts[0].trim())) {
+      return false;
+    }
+    for (int i = 1; i < parts.length; i++) {
+      int eq = parts[i].indexOf('=');
+      if (eq < 0 || !"proto".equalsIgnoreCase(parts[i].substring(0, eq).trim())) {
+        continue;
+      }
+      String proto = parts[i].substring(eq + 1).trim();
+      if (proto.length() >= 2 && proto.startsWith("\"") && proto.endsWith("\"")) {
+        proto = proto.substring(1, proto.length() - 1);
+      }
+      if (!REQUEST_PROTO.equals(proto)) {
+        throw new IOException("unsupported delimited message type: " + proto);
+      }
+    }
+    return true;
+  }
+
+  RecordCodec detect(ConsumerRecord<byte[], byte[]> record) throws IOException {
+    String encoding = header(record, CONTENT_ENCODING);
+    if (encoding != null) {
+      for (RecordCodec codec : codecs) {
+        if (codec.codecName().equalsIgnoreCase(encoding)) {
+          return codec;
+        }
+      }
+      throw new IOException("unsupported content encoding: " + encoding);
+    }
+    for (RecordCodec codec : codecs) {
+      if (codec.matches(record.value())) {
+        return codec;
+      }
+    }
+    return fallback;
+  }
+
+  static String header(ConsumerRecord<byte[], byte[]> record, String key) {
+    for (Header header : record.headers()) {
+      if (key.equalsIgnoreCase(header.key()) && header.value() != null) {
+        return new String(header.value(), StandardCharsets.UTF_8);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public TypeInformation<Request> getProducedType() {
+    return TypeInformation.of(Request.class);
+  }
+}
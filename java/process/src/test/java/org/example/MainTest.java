@@ -5,6 +5,9 @@ package org.example;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.apache.flink.core.execution.CheckpointingMode;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.example.conf.Checkpointing;
 import org.junit.jupiter.api.Test;
 
 class MainTest {
@@ -17,4 +20,23 @@ class MainTest {
             "app should have a greeting"
         );
     }
+
+    @Test
+    void unalignedCheckpointsRequireExactlyOnce() {
+        Checkpointing checkpointing = new Checkpointing();
+        checkpointing.mode = CheckpointingMode.AT_LEAST_ONCE;
+        checkpointing.intervalMs = 1000;
+        checkpointing.timeoutMs = 60000;
+        checkpointing.unaligned = true;
+        checkpointing.alignedTimeoutMs = 5000;
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> Main.configureCheckpointing(env, checkpointing)
+        );
+
+        checkpointing.mode = CheckpointingMode.EXACTLY_ONCE;
+        Main.configureCheckpointing(env, checkpointing);
+        assertTrue(env.getCheckpointConfig().isUnalignedCheckpointsEnabled());
+    }
 }
@@ -0,0 +1,50 @@
+package org.example.operators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class LabelSetPoolTest {
+
+  @Test
+  void reusesReleasedSet() {
+    LabelSetPool pool = new LabelSetPool(4, 16, 2);
+    LabelSet labels = pool.acquire();
+    pool.release(labels);
+    assertSame(labels, pool.acquire());
+  }
+
+  @Test
+  void concurrentBorrowersGetDistinctSets() {
+    LabelSetPool pool = new LabelSetPool(4, 16, 2);
+    assertNotSame(pool.acquire(), pool.acquire());
+  }
+
+  @Test
+  void dropsSetGrownPastRetainedCapacity() {
+    LabelSetPool pool = new LabelSetPool(1, 2, 2);
+    LabelSet labels = pool.acquire();
+    SymbolTable symbols = new SymbolTable(List.of(""));
+    labels.copyOf(LabelSetTest.series(symbols, "a", "1", "b", "2", "c", "3", "d", "4"), symbols);
+    assertTrue(labels.capacity() > 2);
+    pool.release(labels);
+    LabelSet next = pool.acquire();
+    assertNotSame(labels, next);
+    assertEquals(1, next.capacity());
+  }
+
+  @Test
+  void keepsAtMostMaxPooledSets() {
+    LabelSetPool pool = new LabelSetPool(4, 16, 1);
+    LabelSet first = pool.acquire();
+    LabelSet second = pool.acquire();
+    pool.release(first);
+    pool.release(second);
+    assertSame(first, pool.acquire());
+    LabelSet third = pool.acquire();
+    assertNotSame(first, third);
+    assertNotSame(second, third);
+  }
+}
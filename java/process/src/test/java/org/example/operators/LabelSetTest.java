@@ -0,0 +1,98 @@
+package org.example.operators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import io.prometheus.write.v2.Types.TimeSeries;
+
+class LabelSetTest {
+
+  static TimeSeries series(SymbolTable symbols, String... labels) {
+    TimeSeries.Builder builder = TimeSeries.newBuilder();
+    for (String label : labels) {
+      builder.addLabelsRefs(symbols.getOrAdd(label));
+    }
+    return builder.build();
+  }
+
+  static List<String> resolve(LabelSet labels, SymbolTable symbols) {
+    TimeSeries.Builder builder = TimeSeries.newBuilder();
+    labels.writeTo(builder);
+    List<String> resolved = new ArrayList<>();
+    for (int ref : builder.getLabelsRefsList()) {
+      resolved.add(symbols.get(ref));
+    }
+    return resolved;
+  }
+
+  @Test
+  void copyOfSortsUnsortedInput() {
+    SymbolTable symbols = new SymbolTable(List.of(""));
+    TimeSeries ts = series(symbols, "pod", "p1", "__name__", "m", "endpoint", "/orders");
+    LabelSet labels = new LabelSet(1);
+    labels.copyOf(ts, symbols);
+    assertEquals(List.of("__name__", "m", "endpoint", "/orders", "pod", "p1"), resolve(labels, symbols));
+  }
+
+  @Test
+  void copyOfCollapsesRepeatedNamesKeepingLastValue() {
+    SymbolTable symbols = new SymbolTable(List.of(""));
+    TimeSeries ts = series(symbols, "pod", "p1", "__name__", "m", "pod", "p2");
+    LabelSet labels = new LabelSet(4);
+    labels.copyOf(ts, symbols);
+    assertEquals(List.of("__name__", "m", "pod", "p2"), resolve(labels, symbols));
+  }
+
+  @Test
+  void copyOfIgnoresTrailingOddRef() {
+    SymbolTable symbols = new SymbolTable(List.of(""));
+    TimeSeries ts = series(symbols, "__name__", "m", "pod");
+    LabelSet labels = new LabelSet(4);
+    labels.copyOf(ts, symbols);
+    assertEquals(List.of("__name__", "m"), resolve(labels, symbols));
+    assertEquals(-1, LabelSet.valueRef(ts, symbols, "pod"));
+  }
+
+  @Test
+  void putInsertsInSortedPosition() {
+    SymbolTable symbols = new SymbolTable(List.of(""));
+    LabelSet labels = new LabelSet(1);
+    labels.copyOf(series(symbols, "b", "1", "d", "2"), symbols);
+    labels.put(symbols, symbols.getOrAdd("a"), symbols.getOrAdd("0"), true);
+    labels.put(symbols, symbols.getOrAdd("c"), symbols.getOrAdd("3"), true);
+    labels.put(symbols, symbols.getOrAdd("e"), symbols.getOrAdd("4"), true);
+    assertEquals(List.of("a", "0", "b", "1", "c", "3", "d", "2", "e", "4"), resolve(labels, symbols));
+  }
+
+  @Test
+  void putReplacesOrKeepsExistingValue() {
+    SymbolTable symbols = new SymbolTable(List.of(""));
+    LabelSet labels = new LabelSet(4);
+    labels.copyOf(series(symbols, "a", "1", "b", "2"), symbols);
+    labels.put(symbols, symbols.getOrAdd("a"), symbols.getOrAdd("x"), true);
+    labels.put(symbols, symbols.getOrAdd("b"), symbols.getOrAdd("y"), false);
+    assertEquals(List.of("a", "x", "b", "2"), resolve(labels, symbols));
+  }
+
+  @Test
+  void projectKeepsMetricNameAndListedLabels() {
+    SymbolTable symbols = new SymbolTable(List.of(""));
+    TimeSeries ts = series(symbols, "pod", "p1", "endpoint", "/orders", "__name__", "m", "team", "t");
+    LabelSet labels = new LabelSet(4);
+    labels.project(ts, symbols, Set.of("team", "endpoint", "missing"));
+    assertEquals(List.of("__name__", "m", "endpoint", "/orders", "team", "t"), resolve(labels, symbols));
+  }
+
+  @Test
+  void valueRefFindsLabelValue() {
+    SymbolTable symbols = new SymbolTable(List.of(""));
+    TimeSeries ts = series(symbols, "__name__", "m", "pod", "p1");
+    assertEquals("p1", symbols.get(LabelSet.valueRef(ts, symbols, "pod")));
+    assertEquals(-1, LabelSet.valueRef(ts, symbols, "team"));
+  }
+}
@@ -0,0 +1,98 @@
+package org.example.operators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.example.operators.MetadataEnrichment.Metadata;
+import org.junit.jupiter.api.Test;
+
+import io.prometheus.write.v2.Types.TimeSeries;
+
+class MetadataEnrichmentTest {
+
+  // The map-based implementation enrichLabels replaced, kept as the reference.
+  static List<String> legacyEnrichLabels(TimeSeries ts, List<String> symbols, Metadata metadata) {
+    Map<String, String> labels = new HashMap<>();
+    List<Integer> refs = ts.getLabelsRefsList();
+    for (int i = 0; i < refs.size(); i += 2) {
+      labels.put(symbols.get(refs.get(i)), symbols.get(refs.get(i + 1)));
+    }
+    labels.put("service", metadata.getService());
+    labels.put("team", metadata.getTeam());
+    labels.put("tier", metadata.getTier());
+
+    List<String> names = new ArrayList<>(labels.keySet());
+    Collections.sort(names);
+    List<String> resolved = new ArrayList<>(names.size() << 1);
+    for (String name : names) {
+      resolved.add(name);
+      resolved.add(labels.get(name));
+    }
+    return resolved;
+  }
+
+  static List<String> enrich(TimeSeries ts, SymbolTable symbols, Metadata metadata) {
+    LabelSet labels = new LabelSet(4);
+    MetadataEnrichment.enrichLabels(labels, ts, symbols, metadata);
+    return LabelSetTest.resolve(labels, symbols);
+  }
+
+  static void assertMatchesLegacy(Metadata metadata, String... labels) {
+    SymbolTable symbols = new SymbolTable(List.of(""));
+    TimeSeries ts = LabelSetTest.series(symbols, labels);
+    List<String> expected = legacyEnrichLabels(ts, new ArrayList<>(symbols.asList()), metadata);
+    assertEquals(expected, enrich(ts, symbols, metadata));
+  }
+
+  @Test
+  void matchesLegacyOnSortedSeries() {
+    assertMatchesLegacy(
+        new Metadata("checkout-6c8f9", "checkout-service", "ecommerce", "critical"),
+        "__name__", "order_create_failed_total",
+        "endpoint", "/orders",
+        "error_type", "timeout",
+        "pod", "checkout-6c8f9");
+  }
+
+  @Test
+  void matchesLegacyOnUnsortedSeries() {
+    assertMatchesLegacy(
+        new Metadata("checkout-6c8f9", "checkout-service", "ecommerce", "critical"),
+        "pod", "checkout-6c8f9",
+        "__name__", "order_create_failed_total",
+        "zone", "a");
+  }
+
+  @Test
+  void matchesLegacyWhenMetadataOverridesExistingLabel() {
+    assertMatchesLegacy(
+        new Metadata("checkout-6c8f9", "checkout-service", "ecommerce", "critical"),
+        "__name__", "m",
+        "pod", "checkout-6c8f9",
+        "team", "stale");
+  }
+
+  @Test
+  void matchesLegacyOnRepeatedLabelName() {
+    assertMatchesLegacy(
+        new Metadata("p", "s", "t", "c"),
+        "__name__", "m",
+        "pod", "p",
+        "pod", "p");
+  }
+
+  @Test
+  void skipsNullMetadataValues() {
+    // The legacy code interned null as a symbol, which protobuf then rejected.
+    SymbolTable symbols = new SymbolTable(List.of(""));
+    TimeSeries ts = LabelSetTest.series(symbols, "__name__", "m", "pod", "p", "team", "kept");
+    assertEquals(
+        List.of("__name__", "m", "pod", "p", "service", "s", "team", "kept"),
+        enrich(ts, symbols, new Metadata("p", "s", null, null)));
+  }
+}
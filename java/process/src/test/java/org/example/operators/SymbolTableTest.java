@@ -0,0 +1,45 @@
+package org.example.operators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SymbolTableTest {
+
+  @Test
+  void getOrAddReturnsFirstIndexOfDuplicateSymbol() {
+    SymbolTable symbols = new SymbolTable(List.of("", "a", "b", "a"));
+    assertEquals(1, symbols.getOrAdd("a"));
+    assertEquals(4, symbols.asList().size());
+  }
+
+  @Test
+  void getOrAddAppendsNewSymbolOnce() {
+    SymbolTable symbols = new SymbolTable(List.of("", "a"));
+    assertEquals(2, symbols.getOrAdd("c"));
+    assertEquals(2, symbols.getOrAdd("c"));
+    assertEquals(List.of("", "a", "c"), symbols.asList());
+  }
+
+  @Test
+  void compareOrdersBySymbolText() {
+    SymbolTable symbols = new SymbolTable(List.of("", "b", "a", "b"));
+    assertTrue(symbols.compare(1, 2) > 0);
+    assertTrue(symbols.compare(2, 1) < 0);
+    assertEquals(0, symbols.compare(1, 3));
+  }
+
+  @Test
+  void readsRequestListUntilFirstIntern() {
+    List<String> initial = List.of("", "a");
+    SymbolTable symbols = new SymbolTable(initial);
+    assertEquals("a", symbols.get(1));
+    assertSame(initial, symbols.asList());
+
+    assertEquals(1, symbols.getOrAdd("a"));
+    assertNotSame(initial, symbols.asList());
+    assertEquals(List.of("", "a"), initial);
+  }
+}
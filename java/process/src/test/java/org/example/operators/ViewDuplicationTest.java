@@ -0,0 +1,98 @@
+package org.example.operators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.example.operators.ViewDuplication.Duplication;
+import org.junit.jupiter.api.Test;
+
+import io.prometheus.write.v2.Types.TimeSeries;
+
+class ViewDuplicationTest {
+
+  // The TreeMap-based projection duplicateLabels replaced, kept as the reference.
+  static List<String> legacyDuplicateLabels(TimeSeries ts, List<String> symbols, Duplication dup) {
+    Map<String, String> newLabels = new TreeMap<>();
+    newLabels.put("view", dup.getView());
+    List<Integer> refs = ts.getLabelsRefsList();
+    for (int i = 0; i < refs.size(); i += 2) {
+      String labelName = symbols.get(refs.get(i));
+      if ("__name__".equals(labelName) || dup.getLabels().contains(labelName)) {
+        newLabels.put(labelName, symbols.get(refs.get(i + 1)));
+      }
+    }
+    List<String> resolved = new ArrayList<>(newLabels.size() << 1);
+    for (Map.Entry<String, String> e : newLabels.entrySet()) {
+      resolved.add(e.getKey());
+      resolved.add(e.getValue());
+    }
+    return resolved;
+  }
+
+  static List<String> duplicate(TimeSeries ts, SymbolTable symbols, Duplication dup) {
+    LabelSet labels = new LabelSet(4);
+    ViewDuplication.duplicateLabels(labels, ts, symbols, dup);
+    return LabelSetTest.resolve(labels, symbols);
+  }
+
+  static void assertMatchesLegacy(Duplication dup, String... labels) {
+    SymbolTable symbols = new SymbolTable(List.of(""));
+    TimeSeries ts = LabelSetTest.series(symbols, labels);
+    List<String> expected = legacyDuplicateLabels(ts, new ArrayList<>(symbols.asList()), dup);
+    assertEquals(expected, duplicate(ts, symbols, dup));
+  }
+
+  @Test
+  void matchesLegacyForSreView() {
+    assertMatchesLegacy(
+        new Duplication("sre", Set.of("endpoint", "error_type", "service")),
+        "__name__", "order_create_failed_total",
+        "endpoint", "/orders",
+        "error_type", "timeout",
+        "service", "checkout-service",
+        "team", "ecommerce",
+        "tier", "critical");
+  }
+
+  @Test
+  void matchesLegacyForBusinessView() {
+    assertMatchesLegacy(
+        new Duplication("business", Set.of("service", "tier")),
+        "tier", "critical",
+        "__name__", "order_create_failed_total",
+        "endpoint", "/orders",
+        "service", "checkout-service");
+  }
+
+  @Test
+  void matchesLegacyWhenSeriesAlreadyHasViewLabel() {
+    assertMatchesLegacy(
+        new Duplication("sre", Set.of("view")),
+        "__name__", "m",
+        "view", "existing");
+  }
+
+  @Test
+  void matchesLegacyOnRepeatedLabelName() {
+    assertMatchesLegacy(
+        new Duplication("sre", Set.of("endpoint")),
+        "__name__", "m",
+        "endpoint", "/a",
+        "endpoint", "/b");
+  }
+
+  @Test
+  void skipsNullView() {
+    // The legacy code interned null as a symbol, which protobuf then rejected.
+    SymbolTable symbols = new SymbolTable(List.of(""));
+    TimeSeries ts = LabelSetTest.series(symbols, "__name__", "m", "endpoint", "/orders");
+    assertEquals(
+        List.of("__name__", "m", "endpoint", "/orders"),
+        duplicate(ts, symbols, new Duplication(null, Set.of("endpoint"))));
+  }
+}
@@ -0,0 +1,77 @@
+package org.example.sources;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class DecodeBufferTest {
+
+  static byte[] payload(int size) {
+    // Compressible but not trivially so, like serialized Requests.
+    byte[] bytes = new byte[size];
+    Random random = new Random(42);
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) random.nextInt(16);
+    }
+    return bytes;
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = RecordCodecs.class, names = { "SNAPPY", "SNAPPY_FRAMED", "ZSTD", "LZ4" })
+  void consecutiveLargeRecordsReuseBackingArray(RecordCodecs codec) throws IOException {
+    DecodeBuffer buffer = new DecodeBuffer(1024, 1 << 22);
+    byte[] raw = payload(300_000);
+    byte[] value = RequestDeserializerTest.encode(codec, raw);
+
+    ByteBuffer first = codec.decode(value, buffer);
+    assertEquals(ByteBuffer.wrap(raw), first);
+    byte[] grown = first.array();
+    buffer.release();
+
+    ByteBuffer second = codec.decode(value, buffer);
+    assertEquals(ByteBuffer.wrap(raw), second);
+    assertSame(grown, second.array());
+  }
+
+  @Test
+  void recordExactlyFillingArrayDoesNotGrowIt() throws IOException {
+    DecodeBuffer buffer = new DecodeBuffer(1024, 1 << 20);
+    byte[] first = buffer.readFully(new ByteArrayInputStream(new byte[1024])).array();
+    buffer.release();
+    assertSame(first, buffer.readFully(new ByteArrayInputStream(new byte[1024])).array());
+  }
+
+  @Test
+  void shrinksOnlyAfterManySmallRecords() throws IOException {
+    DecodeBuffer buffer = new DecodeBuffer(1024, 1 << 20);
+    byte[] grown = buffer.ensure(100_000);
+    buffer.release();
+    for (int i = 1; i < DecodeBuffer.SHRINK_AFTER_RECORDS; i++) {
+      assertSame(grown, buffer.ensure(16));
+      buffer.release();
+    }
+    // A large record in between restarts the count.
+    assertSame(grown, buffer.ensure(90_000));
+    buffer.release();
+    for (int i = 0; i < DecodeBuffer.SHRINK_AFTER_RECORDS; i++) {
+      assertSame(grown, buffer.ensure(16));
+      buffer.release();
+    }
+    assertEquals(1024, buffer.ensure(16).length);
+  }
+
+  @Test
+  void growthStopsAtLimit() {
+    DecodeBuffer buffer = new DecodeBuffer(16, 1024);
+    assertThrows(IOException.class, () -> buffer.ensure(1025));
+    assertThrows(IOException.class, () -> buffer.readFully(new ByteArrayInputStream(new byte[1025])));
+    assertThrows(IOException.class, () -> buffer.checkLimit(1025));
+  }
+}
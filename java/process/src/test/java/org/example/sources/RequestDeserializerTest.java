@@ -0,0 +1,183 @@
+package org.example.sources;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.xerial.snappy.Snappy;
+import org.xerial.snappy.SnappyFramedOutputStream;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import io.prometheus.write.v2.Types.Request;
+import io.prometheus.write.v2.Types.Sample;
+import io.prometheus.write.v2.Types.TimeSeries;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+class RequestDeserializerTest {
+
+  static final String DELIMITED = "application/x-protobuf-delimited; proto=io.prometheus.write.v2.Request";
+
+  static Request request(int i) {
+    return Request.newBuilder()
+        .addSymbols("")
+        .addSymbols("__name__")
+        .addSymbols("order_create_failed_total")
+        .addSymbols("pod")
+        .addSymbols("checkout-" + i)
+        .addTimeseries(TimeSeries.newBuilder()
+            .addLabelsRefs(1)
+            .addLabelsRefs(2)
+            .addLabelsRefs(3)
+            .addLabelsRefs(4)
+            .addSamples(Sample.newBuilder().setValue(i).setTimestamp(1_000L * i)))
+        .build();
+  }
+
+  static byte[] encode(RecordCodecs codec, byte[] raw) throws IOException {
+    switch (codec) {
+      case SNAPPY:
+        return Snappy.compress(raw);
+      case SNAPPY_FRAMED:
+        return stream(SnappyFramedOutputStream::new, raw);
+      case ZSTD:
+        return Zstd.compress(raw);
+      case LZ4:
+        return stream(LZ4FrameOutputStream::new, raw);
+      default:
+        return raw;
+    }
+  }
+
+  interface StreamFactory {
+    OutputStream wrap(OutputStream out) throws IOException;
+  }
+
+  static byte[] stream(StreamFactory factory, byte[] raw) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = factory.wrap(bytes)) {
+      out.write(raw);
+    }
+    return bytes.toByteArray();
+  }
+
+  static ConsumerRecord<byte[], byte[]> record(byte[] value, String encoding, String contentType) {
+    ConsumerRecord<byte[], byte[]> record = new ConsumerRecord<>("raw_metrics", 0, 0L, new byte[0], value);
+    if (encoding != null) {
+      record.headers().add(RequestDeserializer.CONTENT_ENCODING, encoding.getBytes(StandardCharsets.UTF_8));
+    }
+    if (contentType != null) {
+      record.headers().add(RequestDeserializer.CONTENT_TYPE, contentType.getBytes(StandardCharsets.UTF_8));
+    }
+    return record;
+  }
+
+  static List<Request> deserialize(
+      RecordCodec fallback,
+      int maxDecodedBytes,
+      ConsumerRecord<byte[], byte[]> record) throws Exception {
+    RequestDeserializer deserializer = new RequestDeserializer(
+        List.of(RecordCodecs.values()), fallback, 1024, maxDecodedBytes);
+    deserializer.open(null);
+    List<Request> out = new ArrayList<>();
+    deserializer.deserialize(record, new ListCollector<>(out));
+    return out;
+  }
+
+  static List<Request> deserialize(RecordCodec fallback, ConsumerRecord<byte[], byte[]> record) throws Exception {
+    return deserialize(fallback, 1 << 20, record);
+  }
+
+  @ParameterizedTest
+  @EnumSource(RecordCodecs.class)
+  void roundTripsWithContentEncodingHeader(RecordCodecs codec) throws Exception {
+    Request request = request(1);
+    byte[] value = encode(codec, request.toByteArray());
+    assertEquals(
+        List.of(request),
+        deserialize(RecordCodecs.SNAPPY, record(value, codec.codecName().toUpperCase(), null)));
+  }
+
+  @ParameterizedTest
+  @EnumSource(RecordCodecs.class)
+  void roundTripsWithoutContentEncodingHeader(RecordCodecs codec) throws Exception {
+    // Codecs with magic bytes are sniffed; the others rely on the fallback.
+    RecordCodecs fallback = codec == RecordCodecs.IDENTITY ? RecordCodecs.IDENTITY : RecordCodecs.SNAPPY;
+    Request request = request(1);
+    byte[] value = encode(codec, request.toByteArray());
+    assertEquals(List.of(request), deserialize(fallback, record(value, null, null)));
+  }
+
+  @Test
+  void decodesZstdFrameWithoutContentSize() throws Exception {
+    Request request = request(1);
+    byte[] value = stream(ZstdOutputStream::new, request.toByteArray());
+    assertEquals(List.of(request), deserialize(RecordCodecs.SNAPPY, record(value, null, null)));
+  }
+
+  @Test
+  void delimitedEnvelopeYieldsEveryRequest() throws Exception {
+    List<Request> requests = List.of(request(1), request(2), request(3));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    for (Request request : requests) {
+      request.writeDelimitedTo(bytes);
+    }
+    byte[] value = Zstd.compress(bytes.toByteArray());
+    assertEquals(requests, deserialize(RecordCodecs.SNAPPY, record(value, "zstd", DELIMITED)));
+  }
+
+  @Test
+  void delimitedEnvelopeRejectsOtherMessageType() {
+    byte[] value = request(1).toByteArray();
+    assertThrows(
+        IOException.class,
+        () -> deserialize(
+            RecordCodecs.SNAPPY,
+            record(value, "identity", "application/x-protobuf-delimited;proto=prometheus.WriteRequest")));
+  }
+
+  @Test
+  void recognisesDelimitedMediaTypeVariants() throws Exception {
+    assertTrue(RequestDeserializer.isDelimited(DELIMITED));
+    assertTrue(RequestDeserializer.isDelimited("Application/X-Protobuf-Delimited;proto=\"io.prometheus.write.v2.Request\""));
+    assertTrue(RequestDeserializer.isDelimited("application/x-protobuf-delimited"));
+    assertFalse(RequestDeserializer.isDelimited("application/x-protobuf;proto=io.prometheus.write.v2.Request"));
+    assertFalse(RequestDeserializer.isDelimited(null));
+  }
+
+  @Test
+  void unknownContentEncodingThrows() {
+    byte[] value = request(1).toByteArray();
+    assertThrows(IOException.class, () -> deserialize(RecordCodecs.SNAPPY, record(value, "zstandard", null)));
+  }
+
+  @Test
+  void nullValueIsSkipped() throws Exception {
+    assertEquals(List.of(), deserialize(RecordCodecs.SNAPPY, record(null, null, null)));
+  }
+
+  @ParameterizedTest
+  @EnumSource(RecordCodecs.class)
+  void decodedSizeAboveLimitThrows(RecordCodecs codec) throws Exception {
+    byte[] value = encode(codec, new byte[4096]);
+    assertThrows(IOException.class, () -> deserialize(RecordCodecs.SNAPPY, 1024, record(value, codec.codecName(), null)));
+  }
+
+  @Test
+  void fromStringRejectsUnknownName() {
+    assertEquals(RecordCodecs.SNAPPY_FRAMED, RecordCodecs.fromString("Snappy-Framed"));
+    assertThrows(IllegalArgumentException.class, () -> RecordCodecs.fromString("zstandard"));
+    assertThrows(IllegalArgumentException.class, () -> RecordCodecs.fromString(null));
+  }
+}
@@ -177,7 +177,12 @@ async fn handler_receive_prometheus_remote_write(
   println!("{:?}", header_map);
   match state
     .producer
-    .produce("raw_metrics", b"", &body, &[])
+    .produce(
+      "raw_metrics",
+      b"",
+      &body,
+      &[("Content-Encoding", &b"snappy"[..])],
+    )
     .await
   {
     Ok(_) => {